@@ -0,0 +1,210 @@
+package org.apiphany.client.http;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.io.CloseMode;
+import org.apiphany.client.ClientProperties;
+import org.apiphany.meters.ConnectionManagerMetricsBinder;
+import org.apiphany.meters.RequestMetricsBinder;
+
+/**
+ * Registry of named {@link ApacheHC5ExchangeClient}s which share one {@link PoolingHttpClientConnectionManager}. Each
+ * client keeps its own client properties (request configuration, HTTP version, etc.) while the connections, idle
+ * sockets and TLS sessions are pooled once for all the clients. Since the pool is shared, its metrics are published
+ * once under the registry name, see {@link #getMetricsBinder()}, while the requests of each client are metered under
+ * the client name, see {@link #getMetricsBinder(String)}.
+ * <p>
+ * The pool limits and timeouts of the shared connection manager are taken from the registry client properties and can
+ * be reloaded with {@link #reconfigure(ClientProperties)}, the per-client properties can be reloaded with
+ * {@link #reconfigure(String, ClientProperties)}. Neither rebuilds the clients nor drops in-flight requests.
+ * <p>
+ * Closing the registry closes all the registered clients and then the shared connection manager.
+ *
+ * @author Radu Sebastian LAZIN
+ */
+public class ApacheHC5ClientRegistry implements AutoCloseable {
+
+	/**
+	 * The registry name, used as the client name for the shared pool metrics.
+	 */
+	private final String name;
+
+	/**
+	 * The connection manager shared by all the registered clients.
+	 */
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	/**
+	 * The registered clients by name.
+	 */
+	private final Map<String, ApacheHC5ExchangeClient> clients = new ConcurrentHashMap<>();
+
+	/**
+	 * The request metrics of the registered clients by name.
+	 */
+	private final Map<String, RequestMetricsBinder> requestMetrics = new ConcurrentHashMap<>();
+
+	/**
+	 * Hidden constructor, use {@link #of(String, ClientProperties)}.
+	 *
+	 * @param name registry name
+	 * @param clientProperties client properties used to configure the shared connection manager
+	 */
+	protected ApacheHC5ClientRegistry(final String name, final ClientProperties clientProperties) {
+		this.name = Objects.requireNonNull(name, "name cannot be null");
+		Objects.requireNonNull(clientProperties, "clientProperties cannot be null");
+		this.connectionManager = PoolingHttpClients.createConnectionManager(clientProperties);
+	}
+
+	/**
+	 * Creates a client registry with a shared connection manager configured from the given client properties.
+	 *
+	 * @param name registry name, used as the client name for the shared pool metrics
+	 * @param clientProperties client properties used to configure the shared connection manager
+	 * @return a new client registry
+	 */
+	public static ApacheHC5ClientRegistry of(final String name, final ClientProperties clientProperties) {
+		return new ApacheHC5ClientRegistry(name, clientProperties);
+	}
+
+	/**
+	 * Returns the client registered with the given name, creating it with the given client properties if it does not exist.
+	 * The client properties are ignored if the client already exists, use {@link #reconfigure(String, ClientProperties)}
+	 * to change them. The client name is also the name under which the client requests are metered.
+	 *
+	 * @param name client name
+	 * @param clientProperties client properties
+	 * @return the client registered with the given name
+	 */
+	public ApacheHC5ExchangeClient getClient(final String name, final ClientProperties clientProperties) {
+		Objects.requireNonNull(name, "name cannot be null");
+		Objects.requireNonNull(clientProperties, "clientProperties cannot be null");
+		return clients.computeIfAbsent(name, n -> {
+			RequestMetricsBinder metricsBinder = requestMetrics.computeIfAbsent(n, RequestMetricsBinder::of);
+			return new ApacheHC5ExchangeClient(clientProperties, connectionManager,
+					httpClientBuilder -> httpClientBuilder.addExecInterceptorFirst(RequestMetricsBinder.class.getSimpleName(), metricsBinder));
+		});
+	}
+
+	/**
+	 * Returns the client registered with the given name.
+	 *
+	 * @param name client name
+	 * @return the client registered with the given name, {@code null} if no such client exists
+	 */
+	public ApacheHC5ExchangeClient getClient(final String name) {
+		return clients.get(name);
+	}
+
+	/**
+	 * Returns the names of the registered clients.
+	 *
+	 * @return the names of the registered clients
+	 */
+	public Set<String> getClientNames() {
+		return Set.copyOf(clients.keySet());
+	}
+
+	/**
+	 * Reconfigures the pool limits and timeouts of the shared connection manager.
+	 *
+	 * @param clientProperties the new client properties
+	 * @see PoolingHttpClients#reconfigure(PoolingHttpClientConnectionManager, ClientProperties)
+	 */
+	public void reconfigure(final ClientProperties clientProperties) {
+		PoolingHttpClients.reconfigure(connectionManager, clientProperties);
+	}
+
+	/**
+	 * Reconfigures the client registered with the given name.
+	 *
+	 * @param name client name
+	 * @param clientProperties the new client properties
+	 * @throws IllegalArgumentException if no client is registered with the given name
+	 * @see ApacheHC5ExchangeClient#reconfigure(ClientProperties)
+	 */
+	public void reconfigure(final String name, final ClientProperties clientProperties) {
+		ApacheHC5ExchangeClient client = clients.get(name);
+		if (null == client) {
+			throw new IllegalArgumentException("No client registered with name: " + name);
+		}
+		client.reconfigure(clientProperties);
+	}
+
+	/**
+	 * Returns a metrics binder which publishes the shared pool metrics once, under the registry name. The registered
+	 * clients do not publish pool metrics of their own since they would all report the same shared pool.
+	 *
+	 * @return metrics binder
+	 */
+	public ConnectionManagerMetricsBinder getMetricsBinder() {
+		return ConnectionManagerMetricsBinder.of(connectionManager, name);
+	}
+
+	/**
+	 * Returns a metrics binder which publishes the request metrics of the client registered with the given name, under the
+	 * client name.
+	 *
+	 * @param name client name
+	 * @return metrics binder
+	 * @throws IllegalArgumentException if no client is registered with the given name
+	 */
+	public RequestMetricsBinder getMetricsBinder(final String name) {
+		RequestMetricsBinder metricsBinder = requestMetrics.get(name);
+		if (null == metricsBinder) {
+			throw new IllegalArgumentException("No client registered with name: " + name);
+		}
+		return metricsBinder;
+	}
+
+	/**
+	 * Returns the registry name.
+	 *
+	 * @return the registry name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the shared connection manager.
+	 *
+	 * @return the shared connection manager
+	 */
+	public PoolingHttpClientConnectionManager getConnectionManager() {
+		return connectionManager;
+	}
+
+	/**
+	 * Closes all the registered clients and the shared connection manager.
+	 *
+	 * @see AutoCloseable#close()
+	 */
+	@Override
+	public void close() {
+		UncheckedIOException failure = null;
+		for (ApacheHC5ExchangeClient client : clients.values()) {
+			try {
+				client.getHttpClient().close();
+			} catch (IOException e) {
+				if (null == failure) {
+					failure = new UncheckedIOException("Error closing HTTP clients", e);
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		clients.clear();
+		requestMetrics.clear();
+		connectionManager.close(CloseMode.GRACEFUL);
+		if (null != failure) {
+			throw failure;
+		}
+	}
+}
@@ -3,10 +3,13 @@ package org.apiphany.client.http;
 import java.io.File;
 import java.io.Serializable;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
@@ -17,6 +20,7 @@ import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.classic.methods.HttpPut;
 import org.apache.hc.client5.http.classic.methods.HttpTrace;
 import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
@@ -30,7 +34,6 @@ import org.apache.hc.core5.http.ProtocolVersion;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.HttpEntities;
-import org.apache.hc.core5.util.Timeout;
 import org.apiphany.ApiRequest;
 import org.apiphany.ApiResponse;
 import org.apiphany.client.ClientProperties;
@@ -63,9 +66,15 @@ public class ApacheHC5ExchangeClient extends AbstractHttpExchangeClient {
 	private PoolingHttpClientConnectionManager connectionManager;
 
 	/**
-	 * The HTTP protocol version.
+	 * Flag indicating whether the connection manager is shared with other clients.
 	 */
-	private ProtocolVersion httpVersion;
+	private final boolean connectionManagerShared;
+
+	/**
+	 * The current configuration, replaced as a whole on {@link #reconfigure(ClientProperties)} so that a request never
+	 * sees a mix of old and new settings.
+	 */
+	private volatile Configuration configuration;
 
 	/**
 	 * Constructs the exchange client.
@@ -81,9 +90,39 @@ public class ApacheHC5ExchangeClient extends AbstractHttpExchangeClient {
 	 */
 	public ApacheHC5ExchangeClient(final ClientProperties clientProperties) {
 		super(clientProperties);
+		this.connectionManagerShared = false;
 		this.httpClient = PoolingHttpClients.createClient(clientProperties,
 				PoolingHttpClients.noCustomizer(), this::customize, this::customize);
-		this.httpVersion = Nullables.nonNullOrDefault(this.httpVersion, HttpVersion.DEFAULT);
+	}
+
+	/**
+	 * Constructs the exchange client using a connection manager shared with other clients. The shared connection manager
+	 * is not closed when this client's HTTP client is closed, see {@link ApacheHC5ClientRegistry}.
+	 *
+	 * @param clientProperties the client properties
+	 * @param sharedConnectionManager the shared connection manager
+	 */
+	public ApacheHC5ExchangeClient(final ClientProperties clientProperties, final PoolingHttpClientConnectionManager sharedConnectionManager) {
+		this(clientProperties, sharedConnectionManager, PoolingHttpClients.noCustomizer());
+	}
+
+	/**
+	 * Constructs the exchange client using a connection manager shared with other clients and applying the given
+	 * customizer to the HTTP client builder. The shared connection manager is not closed when this client's HTTP client is
+	 * closed, see {@link ApacheHC5ClientRegistry}.
+	 *
+	 * @param clientProperties the client properties
+	 * @param sharedConnectionManager the shared connection manager
+	 * @param httpClientBuilderCustomizer HTTP client builder customizer
+	 */
+	public ApacheHC5ExchangeClient(final ClientProperties clientProperties, final PoolingHttpClientConnectionManager sharedConnectionManager,
+			final Consumer<HttpClientBuilder> httpClientBuilderCustomizer) {
+		super(clientProperties);
+		this.connectionManagerShared = true;
+		this.connectionManager = Objects.requireNonNull(sharedConnectionManager, "sharedConnectionManager cannot be null");
+		Consumer<HttpClientBuilder> customizer = this::customize;
+		this.httpClient = PoolingHttpClients.createClient(clientProperties, sharedConnectionManager,
+				customizer.andThen(httpClientBuilderCustomizer));
 	}
 
 	/**
@@ -101,20 +140,37 @@ public class ApacheHC5ExchangeClient extends AbstractHttpExchangeClient {
 	 * @param httpClientBuilder the HTTP client builder
 	 */
 	private void customize(final HttpClientBuilder httpClientBuilder) {
-		ApacheHC5Properties properties = getClientProperties().getCustomProperties(ApacheHC5Properties.class);
-		if (null == properties) {
-			return;
-		}
-		ApacheHC5Properties.Request request = properties.getRequest();
-		ClientProperties.Timeout timeout = getClientProperties().getTimeout();
+		this.configuration = Configuration.of(super.getClientProperties());
+		httpClientBuilder.setDefaultRequestConfig(configuration.requestConfig());
+	}
 
-		RequestConfig requestConfig = RequestConfig.custom()
-				.setConnectionRequestTimeout(Timeout.ofMilliseconds(timeout.getConnectionRequestTimeout()))
-				.setProtocolUpgradeEnabled(request.isProtocolUpgradeEnabled())
-				.build();
-		httpClientBuilder.setDefaultRequestConfig(requestConfig);
+	/**
+	 * Reconfigures this client with the given client properties without rebuilding the HTTP client. Requests already in
+	 * flight keep their configuration, the new client properties, request configuration and HTTP version apply to the
+	 * following requests and to the ranged downloads created afterwards. The pool limits and timeouts are applied to the
+	 * connection manager only if it is not shared, shared connection managers are reconfigured through
+	 * {@link ApacheHC5ClientRegistry#reconfigure(ClientProperties)}.
+	 *
+	 * @param clientProperties the new client properties
+	 */
+	public void reconfigure(final ClientProperties clientProperties) {
+		Objects.requireNonNull(clientProperties, "clientProperties cannot be null");
+		if (!connectionManagerShared) {
+			PoolingHttpClients.reconfigure(connectionManager, clientProperties);
+		}
+		this.configuration = Configuration.of(clientProperties);
+	}
 
-		this.httpVersion = request.getHttpProtocolVersion();
+	/**
+	 * Returns the current client properties, which are the ones given to the last {@link #reconfigure(ClientProperties)}
+	 * call or the constructor ones if the client was never reconfigured.
+	 *
+	 * @see AbstractHttpExchangeClient#getClientProperties()
+	 */
+	@Override
+	public ClientProperties getClientProperties() {
+		Configuration current = configuration;
+		return null != current ? current.clientProperties() : super.getClientProperties();
 	}
 
 	/**
@@ -130,6 +186,35 @@ public class ApacheHC5ExchangeClient extends AbstractHttpExchangeClient {
 				.get();
 	}
 
+	/**
+	 * Downloads the resource at the given URI into the target file, fetching byte ranges in parallel when the server
+	 * supports them, see {@link RangedDownload}.
+	 *
+	 * @param uri resource URI
+	 * @param target target file
+	 * @return the target file
+	 */
+	public Path download(final URI uri, final Path target) {
+		return rangedDownload(uri, target).download();
+	}
+
+	/**
+	 * Returns a ranged download for the given URI and target file configured with the
+	 * {@link ApacheHC5Properties#getDownload()} properties. The returned object can be used to resume the download after a
+	 * failure by calling {@link RangedDownload#download()} again.
+	 *
+	 * @param uri resource URI
+	 * @param target target file
+	 * @return a ranged download
+	 */
+	public RangedDownload rangedDownload(final URI uri, final Path target) {
+		ApacheHC5Properties properties = getClientProperties().getCustomProperties(ApacheHC5Properties.class);
+		ApacheHC5Properties.Download download = null != properties
+				? properties.getDownload()
+				: new ApacheHC5Properties.Download();
+		return RangedDownload.of(getHttpClient(), this::getRequestConfig, uri, target, download);
+	}
+
 	/**
 	 * Builds the HTTP URI request object.
 	 *
@@ -139,10 +224,14 @@ public class ApacheHC5ExchangeClient extends AbstractHttpExchangeClient {
 	 * @return a HTTP URI request
 	 */
 	protected <T> HttpUriRequest buildRequest(final ApiRequest<T> apiRequest) {
+		Configuration current = configuration;
 		HttpUriRequest httpUriRequest = toHttpUriRequest(apiRequest.getUri(), apiRequest.<HttpMethod>getMethod());
 		addTracingHeaders(apiRequest.getHeaders());
 		addHeaders(httpUriRequest, apiRequest.getHeaders());
-		httpUriRequest.setVersion(httpVersion);
+		httpUriRequest.setVersion(current.httpVersion());
+		if (httpUriRequest instanceof HttpUriRequestBase httpUriRequestBase) {
+			httpUriRequestBase.setConfig(current.requestConfig());
+		}
 
 		if (apiRequest.hasBody()) {
 			// This entity doesn't need to be closed
@@ -277,4 +366,61 @@ public class ApacheHC5ExchangeClient extends AbstractHttpExchangeClient {
 		return connectionManager;
 	}
 
+	/**
+	 * Returns true if the connection manager is shared with other clients.
+	 *
+	 * @return true if the connection manager is shared with other clients
+	 */
+	public boolean isConnectionManagerShared() {
+		return connectionManagerShared;
+	}
+
+	/**
+	 * Returns the current request configuration applied to every request.
+	 *
+	 * @return the current request configuration
+	 */
+	public RequestConfig getRequestConfig() {
+		return configuration.requestConfig();
+	}
+
+	/**
+	 * Returns the current HTTP protocol version.
+	 *
+	 * @return the current HTTP protocol version
+	 */
+	public ProtocolVersion getHttpVersion() {
+		return configuration.httpVersion();
+	}
+
+	/**
+	 * Immutable snapshot of the client configuration.
+	 *
+	 * @param clientProperties the client properties
+	 * @param requestConfig the request configuration built from the client properties
+	 * @param httpVersion the HTTP protocol version built from the client properties
+	 *
+	 * @author Radu Sebastian LAZIN
+	 */
+	private record Configuration(ClientProperties clientProperties, RequestConfig requestConfig, ProtocolVersion httpVersion) {
+
+		/**
+		 * Builds the configuration from the given client properties.
+		 *
+		 * @param clientProperties the client properties
+		 * @return the configuration
+		 */
+		static Configuration of(final ClientProperties clientProperties) {
+			RequestConfig.Builder requestConfigBuilder = PoolingHttpClients.createRequestConfigBuilder(clientProperties);
+			ProtocolVersion httpVersion = HttpVersion.DEFAULT;
+			ApacheHC5Properties properties = clientProperties.getCustomProperties(ApacheHC5Properties.class);
+			if (null != properties) {
+				ApacheHC5Properties.Request request = properties.getRequest();
+				requestConfigBuilder.setProtocolUpgradeEnabled(request.isProtocolUpgradeEnabled());
+				httpVersion = request.getHttpProtocolVersion();
+			}
+			return new Configuration(clientProperties, requestConfigBuilder.build(), httpVersion);
+		}
+	}
+
 }
@@ -23,6 +23,11 @@ public class ApacheHC5Properties {
 	 */
 	private Request request = new Request();
 
+	/**
+	 * Specific Apache HTTP Client 5 ranged download properties.
+	 */
+	private Download download = new Download();
+
 	/**
 	 * @see #toString()
 	 */
@@ -49,6 +54,24 @@ public class ApacheHC5Properties {
 		this.request = request;
 	}
 
+	/**
+	 * Returns the ranged download properties.
+	 *
+	 * @return the ranged download properties
+	 */
+	public Download getDownload() {
+		return download;
+	}
+
+	/**
+	 * Sets the ranged download properties.
+	 *
+	 * @param download properties to set
+	 */
+	public void setDownload(final Download download) {
+		this.download = download;
+	}
+
 	/**
 	 * Apache HTTP Client 5 Request properties, the defaults will be populated from {@link RequestConfig#DEFAULT}.
 	 *
@@ -91,4 +114,88 @@ public class ApacheHC5Properties {
 
 	}
 
+	/**
+	 * Apache HTTP Client 5 ranged download properties used by {@link RangedDownload}.
+	 *
+	 * @author Radu Sebastian LAZIN
+	 */
+	public static class Download {
+
+		/**
+		 * Default chunk size: 8 MiB.
+		 */
+		public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+
+		/**
+		 * Default number of chunks fetched in parallel.
+		 */
+		public static final int DEFAULT_PARALLELISM = 4;
+
+		/**
+		 * Default number of retries for a failed chunk.
+		 */
+		public static final int DEFAULT_MAX_RETRIES = 3;
+
+		/**
+		 * Default delay in milliseconds before the first retry of a failed chunk, doubled for each following retry.
+		 */
+		public static final long DEFAULT_RETRY_DELAY = 100;
+
+		private long chunkSize = DEFAULT_CHUNK_SIZE;
+
+		private int parallelism = DEFAULT_PARALLELISM;
+
+		private int maxRetries = DEFAULT_MAX_RETRIES;
+
+		private long retryDelay = DEFAULT_RETRY_DELAY;
+
+		private boolean memoryMapped = false;
+
+		@Override
+		public String toString() {
+			return JsonBuilder.toJson(this);
+		}
+
+		public long getChunkSize() {
+			return chunkSize;
+		}
+
+		public void setChunkSize(final long chunkSize) {
+			this.chunkSize = chunkSize;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(final int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+		public int getMaxRetries() {
+			return maxRetries;
+		}
+
+		public void setMaxRetries(final int maxRetries) {
+			this.maxRetries = maxRetries;
+		}
+
+		public long getRetryDelay() {
+			return retryDelay;
+		}
+
+		public void setRetryDelay(final long retryDelay) {
+			this.retryDelay = retryDelay;
+		}
+
+		public boolean isMemoryMapped() {
+			return memoryMapped;
+		}
+
+		public void setMemoryMapped(final boolean memoryMapped) {
+			this.memoryMapped = memoryMapped;
+		}
+
+	}
+
 }
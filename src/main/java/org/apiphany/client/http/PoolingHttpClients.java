@@ -67,18 +67,48 @@ public interface PoolingHttpClients {
 		PoolingHttpClientConnectionManager connectionManager = connectionManagerBuilder.build();
 		connectionManagerCustomizer.accept(connectionManager);
 
-		ClientProperties.Timeout timeout = clientProperties.getTimeout();
-		RequestConfig requestConfig = RequestConfig.custom()
-				.setConnectionRequestTimeout(Timeout.ofMilliseconds(timeout.getConnectionRequestTimeout()))
-				.build();
 		HttpClientBuilder httpClientBuilder = HttpClients.custom()
 				.setConnectionManager(connectionManager)
-				.setDefaultRequestConfig(requestConfig);
+				.setDefaultRequestConfig(createRequestConfigBuilder(clientProperties).build());
+		httpClientBuilderCustomizer.accept(httpClientBuilder);
+
+		return httpClientBuilder.build();
+	}
+
+	/**
+	 * Returns a configured HTTP client based on the given client properties which uses the given shared connection
+	 * manager. Closing the returned HTTP client will not close the shared connection manager, the caller is responsible for
+	 * closing both the returned HTTP client and the connection manager.
+	 *
+	 * @param clientProperties HTTP client properties
+	 * @param sharedConnectionManager connection manager shared between multiple HTTP clients
+	 * @param httpClientBuilderCustomizer HTTP client builder customizer
+	 * @return HTTP client
+	 */
+	static CloseableHttpClient createClient(
+			final ClientProperties clientProperties,
+			final PoolingHttpClientConnectionManager sharedConnectionManager,
+			final Consumer<HttpClientBuilder> httpClientBuilderCustomizer) {
+		HttpClientBuilder httpClientBuilder = HttpClients.custom()
+				.setConnectionManager(sharedConnectionManager)
+				.setConnectionManagerShared(true)
+				.setDefaultRequestConfig(createRequestConfigBuilder(clientProperties).build());
 		httpClientBuilderCustomizer.accept(httpClientBuilder);
 
 		return httpClientBuilder.build();
 	}
 
+	/**
+	 * Returns a pooling HTTP client connection manager configured with the given client properties. The caller is
+	 * responsible for closing the returned connection manager.
+	 *
+	 * @param clientProperties HTTP client properties
+	 * @return a pooling HTTP client connection manager
+	 */
+	static PoolingHttpClientConnectionManager createConnectionManager(final ClientProperties clientProperties) {
+		return createConnectionManagerBuilder(clientProperties).build();
+	}
+
 	/**
 	 * Returns a pulling HTTP client connection manager builder configured with the given client properties.
 	 *
@@ -86,21 +116,75 @@ public interface PoolingHttpClients {
 	 * @return a pulling HTTP client connection manager
 	 */
 	static PoolingHttpClientConnectionManagerBuilder createConnectionManagerBuilder(final ClientProperties clientProperties) {
-		ClientProperties.Timeout timeout = clientProperties.getTimeout();
 		ClientProperties.Connection connections = clientProperties.getConnection();
 
 		return PoolingHttpClientConnectionManagerBuilder.create()
-				.setDefaultSocketConfig(SocketConfig.custom()
-						.setSoTimeout(Timeout.ofMilliseconds(timeout.getSocketTimeout()))
-						.build())
-				.setDefaultConnectionConfig(ConnectionConfig.custom()
-						.setConnectTimeout(Timeout.ofMilliseconds(timeout.getConnectTimeout()))
-						.setSocketTimeout(Timeout.ofMilliseconds(timeout.getSocketTimeout()))
-						.build())
+				.setDefaultSocketConfig(createSocketConfig(clientProperties))
+				.setDefaultConnectionConfig(createConnectionConfig(clientProperties))
 				.setMaxConnPerRoute(connections.getMaxPerRoute())
 				.setMaxConnTotal(connections.getMaxTotal());
 	}
 
+	/**
+	 * Reconfigures the pool limits and timeouts of an existing connection manager with the given client properties without
+	 * closing it. Leased connections are not affected, the new timeouts apply to connections created afterwards and the
+	 * new limits apply to the following connection requests. The socket timeout of pooled connections is overridden on
+	 * each request by the response timeout, see {@link #createRequestConfigBuilder(ClientProperties)}.
+	 *
+	 * @param connectionManager connection manager to reconfigure
+	 * @param clientProperties HTTP client properties
+	 */
+	static void reconfigure(final PoolingHttpClientConnectionManager connectionManager, final ClientProperties clientProperties) {
+		ClientProperties.Connection connections = clientProperties.getConnection();
+
+		connectionManager.setDefaultSocketConfig(createSocketConfig(clientProperties));
+		connectionManager.setDefaultConnectionConfig(createConnectionConfig(clientProperties));
+		connectionManager.setDefaultMaxPerRoute(connections.getMaxPerRoute());
+		connectionManager.setMaxTotal(connections.getMaxTotal());
+	}
+
+	/**
+	 * Returns a socket configuration based on the given client properties.
+	 *
+	 * @param clientProperties HTTP client properties
+	 * @return socket configuration
+	 */
+	static SocketConfig createSocketConfig(final ClientProperties clientProperties) {
+		ClientProperties.Timeout timeout = clientProperties.getTimeout();
+		return SocketConfig.custom()
+				.setSoTimeout(Timeout.ofMilliseconds(timeout.getSocketTimeout()))
+				.build();
+	}
+
+	/**
+	 * Returns a connection configuration based on the given client properties.
+	 *
+	 * @param clientProperties HTTP client properties
+	 * @return connection configuration
+	 */
+	static ConnectionConfig createConnectionConfig(final ClientProperties clientProperties) {
+		ClientProperties.Timeout timeout = clientProperties.getTimeout();
+		return ConnectionConfig.custom()
+				.setConnectTimeout(Timeout.ofMilliseconds(timeout.getConnectTimeout()))
+				.setSocketTimeout(Timeout.ofMilliseconds(timeout.getSocketTimeout()))
+				.build();
+	}
+
+	/**
+	 * Returns a request configuration builder based on the given client properties. The socket timeout is also set as the
+	 * response timeout so that it applies per request, even on pooled connections created with a different socket timeout
+	 * or by another client sharing the connection manager.
+	 *
+	 * @param clientProperties HTTP client properties
+	 * @return request configuration builder
+	 */
+	static RequestConfig.Builder createRequestConfigBuilder(final ClientProperties clientProperties) {
+		ClientProperties.Timeout timeout = clientProperties.getTimeout();
+		return RequestConfig.custom()
+				.setConnectionRequestTimeout(Timeout.ofMilliseconds(timeout.getConnectionRequestTimeout()))
+				.setResponseTimeout(Timeout.ofMilliseconds(timeout.getSocketTimeout()));
+	}
+
 	/**
 	 * To be used in conjunction with {@link #createClient(ClientProperties, Consumer, Consumer, Consumer)} when no
 	 * customization is necessary for one of the parameters.
@@ -0,0 +1,721 @@
+package org.apiphany.client.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.DecompressingEntity;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.morphix.lang.Nullables;
+
+/**
+ * Downloads a resource into a file by splitting it into byte ranges which are fetched in parallel over the pooled
+ * connections of an Apache HTTP Client 5.
+ * <p>
+ * The resource is first probed with a {@code HEAD} request. When the server advertises {@code Accept-Ranges: bytes}
+ * and a {@code Content-Length}, the resource is split into chunks of {@link ApacheHC5Properties.Download#getChunkSize()}
+ * bytes which are written with positional {@link FileChannel} writes (or into memory-mapped regions when
+ * {@link ApacheHC5Properties.Download#isMemoryMapped()} is set) directly at their offset in the target file. Otherwise
+ * the resource is downloaded with a single {@code GET} request, as are resources that fit in a single chunk.
+ * <p>
+ * All requests ask for the {@code identity} encoding since the ranges and the length must refer to the stored bytes,
+ * a compressed representation served for the probe disables the ranges and a compressed range response aborts the
+ * download.
+ * <p>
+ * Each chunk request carries an {@code If-Range} header with the probed strong {@code ETag}, or with the
+ * {@code Last-Modified} date when the server returns no strong {@code ETag}, so a resource changed between chunks is
+ * detected instead of producing a corrupted file. Resources without any validator are downloaded with a single
+ * {@code GET} request. A changed resource aborts the whole download, cancelling the chunks still in flight. Failed chunks
+ * are retried up to {@link ApacheHC5Properties.Download#getMaxRetries()} times with an exponential delay starting at
+ * {@link ApacheHC5Properties.Download#getRetryDelay()} and if the download still fails, calling {@link #download()}
+ * again on the same object only fetches the missing chunks, provided the validator and length of the resource did not
+ * change.
+ *
+ * @author Radu Sebastian LAZIN
+ */
+public class RangedDownload {
+
+	/**
+	 * The {@code Accept-Ranges} value for byte ranges.
+	 */
+	public static final String BYTES = "bytes";
+
+	/**
+	 * The {@code Accept-Encoding} value asking for the resource bytes as stored.
+	 */
+	public static final String IDENTITY = "identity";
+
+	/**
+	 * The buffer size used for positional writes.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The maximum number of times the retry delay is doubled.
+	 */
+	private static final int MAX_RETRY_DELAY_SHIFT = 10;
+
+	/**
+	 * The HTTP client used for the requests.
+	 */
+	private final CloseableHttpClient httpClient;
+
+	/**
+	 * Supplies the current request configuration applied to every request, {@code null} configurations mean that the HTTP
+	 * client default request configuration is used.
+	 */
+	private final Supplier<RequestConfig> requestConfigSupplier;
+
+	/**
+	 * The resource URI.
+	 */
+	private final URI uri;
+
+	/**
+	 * The target file.
+	 */
+	private final Path target;
+
+	/**
+	 * The download properties.
+	 */
+	private final ApacheHC5Properties.Download properties;
+
+	/**
+	 * The indexes of the chunks already written to the target file.
+	 */
+	private final Set<Integer> completedChunks = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The resource {@code ETag} from the last probe.
+	 */
+	private String eTag;
+
+	/**
+	 * The resource {@code Last-Modified} date from the last probe.
+	 */
+	private String lastModified;
+
+	/**
+	 * The resource length from the last probe.
+	 */
+	private long contentLength = -1;
+
+	/**
+	 * The chunk requests in flight, cancelled when the download is aborted.
+	 */
+	private final Set<HttpGet> inFlightRequests = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Whether the current download was aborted because the resource changed.
+	 */
+	private volatile boolean aborted;
+
+	/**
+	 * Whether the last call to {@link #download()} completed.
+	 */
+	private volatile boolean complete;
+
+	/**
+	 * Hidden constructor, use {@link #of(CloseableHttpClient, Supplier, URI, Path, ApacheHC5Properties.Download)}.
+	 *
+	 * @param httpClient HTTP client
+	 * @param requestConfigSupplier supplies the current request configuration
+	 * @param uri resource URI
+	 * @param target target file
+	 * @param properties download properties
+	 */
+	protected RangedDownload(final CloseableHttpClient httpClient, final Supplier<RequestConfig> requestConfigSupplier,
+			final URI uri, final Path target, final ApacheHC5Properties.Download properties) {
+		this.httpClient = Objects.requireNonNull(httpClient, "httpClient cannot be null");
+		this.requestConfigSupplier = Objects.requireNonNull(requestConfigSupplier, "requestConfigSupplier cannot be null");
+		this.uri = Objects.requireNonNull(uri, "uri cannot be null");
+		this.target = Objects.requireNonNull(target, "target cannot be null");
+		this.properties = Objects.requireNonNull(properties, "properties cannot be null");
+		if (properties.getChunkSize() <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive, got: " + properties.getChunkSize());
+		}
+		if (properties.isMemoryMapped() && properties.getChunkSize() > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("chunkSize cannot exceed " + Integer.MAX_VALUE + " bytes for memory-mapped downloads");
+		}
+	}
+
+	/**
+	 * Creates a ranged download which uses the HTTP client default request configuration.
+	 *
+	 * @param httpClient HTTP client
+	 * @param uri resource URI
+	 * @param target target file
+	 * @param properties download properties
+	 * @return a new ranged download
+	 */
+	public static RangedDownload of(final CloseableHttpClient httpClient, final URI uri, final Path target,
+			final ApacheHC5Properties.Download properties) {
+		return of(httpClient, () -> null, uri, target, properties);
+	}
+
+	/**
+	 * Creates a ranged download which applies the request configuration given by the supplier to every request, so that
+	 * reloaded request settings also apply to the downloads, see {@link ApacheHC5ExchangeClient#getRequestConfig()}.
+	 *
+	 * @param httpClient HTTP client
+	 * @param requestConfigSupplier supplies the current request configuration
+	 * @param uri resource URI
+	 * @param target target file
+	 * @param properties download properties
+	 * @return a new ranged download
+	 */
+	public static RangedDownload of(final CloseableHttpClient httpClient, final Supplier<RequestConfig> requestConfigSupplier,
+			final URI uri, final Path target, final ApacheHC5Properties.Download properties) {
+		return new RangedDownload(httpClient, requestConfigSupplier, uri, target, properties);
+	}
+
+	/**
+	 * Downloads the resource into the target file. If a previous call failed, only the missing chunks are fetched as long
+	 * as the resource did not change in the meantime.
+	 *
+	 * @return the target file
+	 * @throws UncheckedIOException when the resource cannot be downloaded
+	 */
+	public Path download() {
+		this.complete = false;
+		try {
+			Probe probe = probe();
+			if (!probe.isRangeable() || probe.contentLength() <= properties.getChunkSize()) {
+				completedChunks.clear();
+				this.eTag = null;
+				this.lastModified = null;
+				this.contentLength = -1;
+				downloadWhole();
+				this.complete = true;
+				return target;
+			}
+			boolean resumable = probe.contentLength() == contentLength && Objects.equals(probe.validator(), validator());
+			if (!resumable) {
+				completedChunks.clear();
+			}
+			this.eTag = probe.eTag();
+			this.lastModified = probe.lastModified();
+			this.contentLength = probe.contentLength();
+			downloadChunks(chunkCount(), resumable);
+			this.complete = true;
+			return target;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error downloading " + uri + " to " + target, e);
+		}
+	}
+
+	/**
+	 * Probes the resource with a {@code HEAD} request. The resource can be downloaded in ranges only if the server supports
+	 * byte ranges, returns a valid length of the {@code identity} encoding and a validator ({@code ETag} or
+	 * {@code Last-Modified}).
+	 *
+	 * @return the probe result
+	 * @throws IOException on I/O errors
+	 */
+	protected Probe probe() throws IOException {
+		return httpClient.execute(configure(new HttpHead(uri)), response -> {
+			if (response.getCode() < HttpStatus.SC_SUCCESS || response.getCode() >= HttpStatus.SC_REDIRECTION) {
+				return Probe.NOT_RANGEABLE;
+			}
+			String acceptRanges = headerValue(response, HttpHeaders.ACCEPT_RANGES);
+			long length = parseLength(headerValue(response, HttpHeaders.CONTENT_LENGTH));
+			String strongETag = Nullables.apply(headerValue(response, HttpHeaders.ETAG), e -> e.startsWith("W/") ? null : e);
+			String lastModified = headerValue(response, HttpHeaders.LAST_MODIFIED);
+			boolean rangeable = BYTES.equalsIgnoreCase(Nullables.apply(acceptRanges, String::trim))
+					&& !isEncoded(response)
+					&& length > 0
+					&& (null != strongETag || null != lastModified);
+			return rangeable ? new Probe(true, length, strongETag, lastModified) : Probe.NOT_RANGEABLE;
+		});
+	}
+
+	/**
+	 * Parses the {@code Content-Length} header value.
+	 *
+	 * @param lengthValue header value
+	 * @return the length or {@code -1} if the value is missing or malformed
+	 */
+	private static long parseLength(final String lengthValue) {
+		if (null == lengthValue) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(lengthValue.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns true if the response carries an encoding other than {@code identity}. The HTTP client transparently
+	 * decompressing the content also removes the {@code Content-Encoding} header so the entity type is checked as well.
+	 *
+	 * @param response HTTP response
+	 * @return true if the response content is encoded
+	 */
+	private static boolean isEncoded(final ClassicHttpResponse response) {
+		String contentEncoding = headerValue(response, HttpHeaders.CONTENT_ENCODING);
+		return (null != contentEncoding && !IDENTITY.equalsIgnoreCase(contentEncoding.trim()))
+				|| response.getEntity() instanceof DecompressingEntity;
+	}
+
+	/**
+	 * Returns the number of chunks of the probed resource.
+	 *
+	 * @return the number of chunks
+	 * @throws IOException if the resource needs more chunks than can be tracked
+	 */
+	private int chunkCount() throws IOException {
+		long chunkCount = (contentLength + properties.getChunkSize() - 1) / properties.getChunkSize();
+		if (chunkCount > Integer.MAX_VALUE) {
+			throw new IOException("Resource " + uri + " of " + contentLength + " bytes needs " + chunkCount
+					+ " chunks, at most " + Integer.MAX_VALUE + " are supported, increase the chunk size");
+		}
+		return (int) chunkCount;
+	}
+
+	/**
+	 * Returns the validator sent in the {@code If-Range} header: the strong {@code ETag} if available, the
+	 * {@code Last-Modified} date otherwise.
+	 *
+	 * @return the validator
+	 */
+	private String validator() {
+		return null != eTag ? eTag : lastModified;
+	}
+
+	/**
+	 * Downloads the missing chunks in parallel. The chunk downloads are always finished when this method returns, even
+	 * when the download is aborted, so that no chunk writes into a closed file channel or into the next attempt.
+	 *
+	 * @param chunkCount the number of chunks
+	 * @param resume whether the target file content is kept from the previous attempt
+	 * @throws IOException on I/O errors
+	 */
+	private void downloadChunks(final int chunkCount, final boolean resume) throws IOException {
+		List<Integer> missingChunks = new ArrayList<>();
+		for (int i = 0; i < chunkCount; ++i) {
+			if (!completedChunks.contains(i)) {
+				missingChunks.add(i);
+			}
+		}
+		try (FileChannel fileChannel = FileChannel.open(target,
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			if (!resume) {
+				fileChannel.truncate(0);
+			}
+			int threads = Math.max(1, Math.min(properties.getParallelism(), missingChunks.size()));
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			this.aborted = false;
+			try {
+				CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+				for (int chunk : missingChunks) {
+					Callable<Void> task = () -> {
+						downloadChunk(fileChannel, chunk);
+						return null;
+					};
+					completionService.submit(task);
+				}
+				IOException failure = awaitAll(completionService, missingChunks.size(), executor);
+				if (null != failure) {
+					throw failure;
+				}
+			} finally {
+				executor.shutdownNow();
+				// waits for the chunks still running after an abort, re-interrupting the current thread if interrupted
+				executor.close();
+				inFlightRequests.clear();
+			}
+			fileChannel.force(false);
+		}
+	}
+
+	/**
+	 * Waits for the chunk downloads to finish in completion order and returns the first failure if any. Chunks that failed
+	 * with I/O errors do not stop the other chunks so that a following {@link #download()} can resume, but a changed
+	 * resource aborts the download immediately.
+	 *
+	 * @param completionService chunk download completion service
+	 * @param count number of submitted chunk downloads
+	 * @param executor the executor running the chunk downloads
+	 * @return the first failure or {@code null} if all chunks were downloaded
+	 */
+	private IOException awaitAll(final CompletionService<Void> completionService, final int count, final ExecutorService executor) {
+		IOException failure = null;
+		for (int i = 0; i < count; ++i) {
+			try {
+				completionService.take().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				abort(executor);
+				return new InterruptedIOException("Download interrupted");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException ioe) {
+					if (null == failure) {
+						failure = ioe;
+					} else {
+						failure.addSuppressed(ioe);
+					}
+					continue;
+				}
+				abort(executor);
+				IOException abortFailure = new IOException("Download of " + uri + " aborted", cause);
+				if (null != failure) {
+					abortFailure.addSuppressed(failure);
+				}
+				return abortFailure;
+			}
+		}
+		return failure;
+	}
+
+	/**
+	 * Aborts the download by dropping the chunks not started yet and cancelling the chunk requests in flight.
+	 *
+	 * @param executor the executor running the chunk downloads
+	 */
+	private void abort(final ExecutorService executor) {
+		this.aborted = true;
+		executor.shutdownNow();
+		inFlightRequests.forEach(HttpGet::cancel);
+	}
+
+	/**
+	 * Downloads one chunk, retrying on I/O errors with an exponential delay between attempts.
+	 *
+	 * @param fileChannel target file channel
+	 * @param chunk chunk index
+	 * @throws IOException when the chunk could not be downloaded after all retries
+	 */
+	private void downloadChunk(final FileChannel fileChannel, final int chunk) throws IOException {
+		long start = chunk * properties.getChunkSize();
+		long end = Math.min(start + properties.getChunkSize(), contentLength) - 1;
+		for (int attempt = 0;; ++attempt) {
+			try {
+				fetchRange(fileChannel, start, end);
+				completedChunks.add(chunk);
+				return;
+			} catch (IOException e) {
+				if (aborted || attempt >= properties.getMaxRetries()) {
+					throw e;
+				}
+			}
+			sleepBeforeRetry(attempt);
+		}
+	}
+
+	/**
+	 * Waits before retrying a chunk, the delay doubles with each attempt.
+	 *
+	 * @param attempt the failed attempt, starting from 0
+	 * @throws InterruptedIOException if interrupted while waiting
+	 */
+	private void sleepBeforeRetry(final int attempt) throws InterruptedIOException {
+		long delay = properties.getRetryDelay() << Math.min(attempt, MAX_RETRY_DELAY_SHIFT);
+		if (delay <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to retry " + uri);
+		}
+	}
+
+	/**
+	 * Fetches the given byte range and writes it at the same offset in the target file.
+	 *
+	 * @param fileChannel target file channel
+	 * @param start first byte position (inclusive)
+	 * @param end last byte position (inclusive)
+	 * @throws IOException on I/O errors
+	 */
+	private void fetchRange(final FileChannel fileChannel, final long start, final long end) throws IOException {
+		if (aborted) {
+			throw new IllegalStateException("Download of " + uri + " was aborted");
+		}
+		HttpGet httpGet = configure(new HttpGet(uri));
+		httpGet.setHeader(HttpHeaders.RANGE, BYTES + "=" + start + "-" + end);
+		httpGet.setHeader(HttpHeaders.IF_RANGE, validator());
+		inFlightRequests.add(httpGet);
+		try {
+			execute(fileChannel, httpGet, start, end);
+		} finally {
+			inFlightRequests.remove(httpGet);
+		}
+	}
+
+	/**
+	 * Executes the range request and writes the response content at the range offset in the target file.
+	 *
+	 * @param fileChannel target file channel
+	 * @param httpGet range request
+	 * @param start first byte position (inclusive)
+	 * @param end last byte position (inclusive)
+	 * @throws IOException on I/O errors
+	 */
+	private void execute(final FileChannel fileChannel, final HttpGet httpGet, final long start, final long end) throws IOException {
+		httpClient.execute(httpGet, response -> {
+			int code = response.getCode();
+			if (HttpStatus.SC_OK == code || HttpStatus.SC_PRECONDITION_FAILED == code) {
+				// not retried since the server ignored the range which means the resource changed
+				throw new IllegalStateException("Resource " + uri + " changed or does not honor range requests, HTTP status: " + code);
+			}
+			if (HttpStatus.SC_PARTIAL_CONTENT != code) {
+				throw new IOException("Unexpected HTTP status " + code + " for range " + start + "-" + end + " of " + uri);
+			}
+			if (isEncoded(response)) {
+				// not retried since the range refers to the encoded representation, not to the probed one
+				throw new IllegalStateException("Resource " + uri + " returned an encoded range although " + IDENTITY + " was requested");
+			}
+			String responseETag = headerValue(response, HttpHeaders.ETAG);
+			if (null != eTag && null != responseETag && !eTag.equals(responseETag)) {
+				throw new IllegalStateException("Resource " + uri + " changed, expected ETag " + eTag + " but got " + responseETag);
+			}
+			String responseLastModified = headerValue(response, HttpHeaders.LAST_MODIFIED);
+			if (null == eTag && null != responseLastModified && !lastModified.equals(responseLastModified)) {
+				throw new IllegalStateException("Resource " + uri + " changed, expected Last-Modified " + lastModified
+						+ " but got " + responseLastModified);
+			}
+			String contentRange = headerValue(response, HttpHeaders.CONTENT_RANGE);
+			if (null != contentRange && !contentRange.trim().startsWith(BYTES + " " + start + "-" + end + "/")) {
+				throw new IOException("Unexpected Content-Range " + contentRange + " for range " + start + "-" + end + " of " + uri);
+			}
+			write(fileChannel, content(response), start, end - start + 1);
+			return null;
+		});
+	}
+
+	/**
+	 * Downloads the whole resource with a single request, used when the server does not support ranges or when the
+	 * resource fits in a single chunk.
+	 *
+	 * @throws IOException on I/O errors
+	 */
+	private void downloadWhole() throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(target,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			httpClient.execute(configure(new HttpGet(uri)), response -> {
+				if (HttpStatus.SC_OK != response.getCode()) {
+					throw new IOException("Unexpected HTTP status " + response.getCode() + " for " + uri);
+				}
+				fileChannel.transferFrom(Channels.newChannel(content(response)), 0, Long.MAX_VALUE);
+				return null;
+			});
+			fileChannel.force(false);
+		}
+	}
+
+	/**
+	 * Writes exactly {@code length} bytes from the input stream at the given position in the file.
+	 *
+	 * @param fileChannel target file channel
+	 * @param inputStream source input stream
+	 * @param position position in the file
+	 * @param length number of bytes to write
+	 * @throws IOException on I/O errors or if the input stream ends prematurely
+	 */
+	private void write(final FileChannel fileChannel, final InputStream inputStream, final long position, final long length)
+			throws IOException {
+		// the channel is not closed here, the response handling closes the underlying input stream
+		ReadableByteChannel source = Channels.newChannel(inputStream);
+		if (properties.isMemoryMapped()) {
+			MappedByteBuffer region = fileChannel.map(FileChannel.MapMode.READ_WRITE, position, length);
+			while (region.hasRemaining()) {
+				checkAborted();
+				if (source.read(region) < 0) {
+					throw new EOFException("Premature end of range at " + (position + region.position()) + " for " + uri);
+				}
+			}
+			// FileChannel.force does not guarantee that changes made through mapped buffers are written
+			region.force();
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, length));
+		long written = 0;
+		while (written < length) {
+			checkAborted();
+			buffer.clear().limit((int) Math.min(buffer.capacity(), length - written));
+			if (source.read(buffer) < 0) {
+				throw new EOFException("Premature end of range at " + (position + written) + " for " + uri);
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				written += fileChannel.write(buffer, position + written);
+			}
+		}
+	}
+
+	/**
+	 * Applies the current request configuration to the given request and asks for the {@code identity} encoding.
+	 *
+	 * @param <R> request type
+	 *
+	 * @param request HTTP request
+	 * @return the given request
+	 */
+	private <R extends HttpUriRequestBase> R configure(final R request) {
+		request.setConfig(requestConfigSupplier.get());
+		request.setHeader(HttpHeaders.ACCEPT_ENCODING, IDENTITY);
+		return request;
+	}
+
+	/**
+	 * Stops writing a chunk when the download was aborted.
+	 */
+	private void checkAborted() {
+		if (aborted) {
+			throw new IllegalStateException("Download of " + uri + " was aborted");
+		}
+	}
+
+	/**
+	 * Returns the response content.
+	 *
+	 * @param response HTTP response
+	 * @return response content
+	 * @throws IOException if the response has no content
+	 */
+	private static InputStream content(final ClassicHttpResponse response) throws IOException {
+		HttpEntity httpEntity = response.getEntity();
+		if (null == httpEntity) {
+			throw new EOFException("Response has no content");
+		}
+		return httpEntity.getContent();
+	}
+
+	/**
+	 * Returns the first header value with the given name.
+	 *
+	 * @param response HTTP response
+	 * @param name header name
+	 * @return the header value, {@code null} if the header is missing
+	 */
+	private static String headerValue(final ClassicHttpResponse response, final String name) {
+		return Nullables.apply(response.getFirstHeader(name), Header::getValue);
+	}
+
+	/**
+	 * Returns true if the last call to {@link #download()} completed.
+	 *
+	 * @return true if the download is complete
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Returns the number of chunks already written to the target file.
+	 *
+	 * @return the number of completed chunks
+	 */
+	public int getCompletedChunkCount() {
+		return completedChunks.size();
+	}
+
+	/**
+	 * Returns the resource URI.
+	 *
+	 * @return the resource URI
+	 */
+	public URI getUri() {
+		return uri;
+	}
+
+	/**
+	 * Returns the target file.
+	 *
+	 * @return the target file
+	 */
+	public Path getTarget() {
+		return target;
+	}
+
+	/**
+	 * Returns the resource {@code ETag} from the last probe, {@code null} if the server returned no strong {@code ETag}.
+	 *
+	 * @return the resource ETag
+	 */
+	public String getETag() {
+		return eTag;
+	}
+
+	/**
+	 * Returns the resource {@code Last-Modified} date from the last probe, {@code null} if the server returned none.
+	 *
+	 * @return the resource Last-Modified date
+	 */
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Returns the resource length from the last ranged probe, {@code -1} if unknown.
+	 *
+	 * @return the resource length
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * The result of probing the resource.
+	 *
+	 * @param isRangeable true if the resource can be downloaded in ranges
+	 * @param contentLength resource length
+	 * @param eTag strong ETag of the resource
+	 * @param lastModified Last-Modified date of the resource
+	 *
+	 * @author Radu Sebastian LAZIN
+	 */
+	protected record Probe(boolean isRangeable, long contentLength, String eTag, String lastModified) {
+
+		/**
+		 * The probe result for resources that cannot be downloaded in ranges.
+		 */
+		static final Probe NOT_RANGEABLE = new Probe(false, -1, null, null);
+
+		/**
+		 * Returns the validator of the resource.
+		 *
+		 * @return the validator of the resource
+		 */
+		String validator() {
+			return null != eTag ? eTag : lastModified;
+		}
+	}
+}
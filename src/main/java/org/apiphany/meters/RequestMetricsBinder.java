@@ -0,0 +1,98 @@
+package org.apiphany.meters;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apiphany.lang.builder.PropertyNameBuilder;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Per-client request metrics, used when the connection pool is shared between multiple clients and the pool metrics
+ * published by {@link ConnectionManagerMetricsBinder} cannot tell the clients apart. The binder is also the
+ * {@link ExecChainHandler} counting the requests, so it must be added to the client execution chain (for example with
+ * {@code HttpClientBuilder.addExecInterceptorFirst}).
+ * <p>
+ * The following metrics will be published:
+ *
+ * <pre>
+ * 	httpcomponents.httpclient.${clientName}.requests.total
+ * 	httpcomponents.httpclient.${clientName}.requests.active
+ * </pre>
+ *
+ * where {@code ${clientName}} is the parameter given when constructing the binder.
+ *
+ * @author Radu Sebastian LAZIN
+ */
+public class RequestMetricsBinder implements MeterBinder, ExecChainHandler {
+
+	public static final String METRIC_REQUESTS_PREFIX = "requests";
+
+	private final String clientName;
+
+	/**
+	 * The number of requests sent.
+	 */
+	private final LongAdder requests = new LongAdder();
+
+	/**
+	 * The number of requests currently executing, including the wait for a pooled connection, until the response head is
+	 * received.
+	 */
+	private final AtomicInteger activeRequests = new AtomicInteger();
+
+	private RequestMetricsBinder(final String clientName) {
+		this.clientName = clientName;
+	}
+
+	public static RequestMetricsBinder of(final String clientName) {
+		return new RequestMetricsBinder(clientName);
+	}
+
+	@Override
+	public ClassicHttpResponse execute(final ClassicHttpRequest request, final ExecChain.Scope scope, final ExecChain chain)
+			throws IOException, HttpException {
+		requests.increment();
+		activeRequests.incrementAndGet();
+		try {
+			return chain.proceed(request, scope);
+		} finally {
+			activeRequests.decrementAndGet();
+		}
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		// httpcomponents.httpclient.${clientName}.requests.total
+		FunctionCounter.builder(metricName(ConnectionManagerMetricsBinder.METRIC_HTTP_CLIENT_PREFIX, clientName, METRIC_REQUESTS_PREFIX, "total"),
+				requests, LongAdder::sum)
+				.description("The number of requests sent by the client.")
+				.register(registry);
+
+		// httpcomponents.httpclient.${clientName}.requests.active
+		Gauge.builder(metricName(ConnectionManagerMetricsBinder.METRIC_HTTP_CLIENT_PREFIX, clientName, METRIC_REQUESTS_PREFIX, "active"),
+				activeRequests, AtomicInteger::get)
+				.description("The number of requests of the client being executed, waiting for or holding a pooled connection.")
+				.register(registry);
+	}
+
+	public String getClientName() {
+		return clientName;
+	}
+
+	private static String metricName(final String... paths) {
+		return PropertyNameBuilder.builder()
+				.path(paths)
+				.build();
+	}
+
+}
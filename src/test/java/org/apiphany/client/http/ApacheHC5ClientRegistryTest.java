@@ -0,0 +1,206 @@
+package org.apiphany.client.http;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.impl.bootstrap.HttpServer;
+import org.apache.hc.core5.http.impl.bootstrap.ServerBootstrap;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apiphany.ApiRequest;
+import org.apiphany.client.ClientProperties;
+import org.apiphany.http.HttpMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for {@link ApacheHC5ClientRegistry}.
+ *
+ * @author Radu Sebastian LAZIN
+ */
+class ApacheHC5ClientRegistryTest {
+
+	private static final String REGISTRY_NAME = "registry";
+	private static final String CLIENT_A = "client-a";
+	private static final String CLIENT_B = "client-b";
+	private static final String SLOW_PATH = "/slow";
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private HttpServer httpServer;
+
+	private URI uri;
+
+	private ApacheHC5ClientRegistry registry;
+
+	private final CountDownLatch slowRequestReceived = new CountDownLatch(1);
+	private final CountDownLatch slowRequestRelease = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() throws IOException {
+		httpServer = ServerBootstrap.bootstrap()
+				.setLocalAddress(InetAddress.getLoopbackAddress())
+				.setListenerPort(0)
+				.register("*", this::handle)
+				.create();
+		httpServer.start();
+		uri = URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + httpServer.getLocalPort());
+		registry = ApacheHC5ClientRegistry.of(REGISTRY_NAME, new ClientProperties());
+	}
+
+	@AfterEach
+	void tearDown() {
+		slowRequestRelease.countDown();
+		registry.close();
+		httpServer.close(CloseMode.IMMEDIATE);
+	}
+
+	private void handle(final ClassicHttpRequest request, final ClassicHttpResponse response, final HttpContext context) {
+		if (SLOW_PATH.equals(request.getPath())) {
+			slowRequestReceived.countDown();
+			try {
+				slowRequestRelease.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		response.setCode(HttpStatus.SC_OK);
+		response.setEntity(new StringEntity("OK", ContentType.TEXT_PLAIN));
+	}
+
+	private int get(final ApacheHC5ExchangeClient client, final String path) throws IOException {
+		return client.getHttpClient().execute(new HttpGet(uri.resolve(path)), response -> {
+			EntityUtils.consume(response.getEntity());
+			return response.getCode();
+		});
+	}
+
+	@Test
+	void shouldShareOneConnectionManagerBetweenNamedClients() {
+		ApacheHC5ExchangeClient clientA = registry.getClient(CLIENT_A, new ClientProperties());
+		ApacheHC5ExchangeClient clientB = registry.getClient(CLIENT_B, new ClientProperties());
+
+		assertThat(clientA.getConnectionManager(), sameInstance(registry.getConnectionManager()));
+		assertThat(clientB.getConnectionManager(), sameInstance(registry.getConnectionManager()));
+		assertThat(clientA.isConnectionManagerShared(), equalTo(true));
+		assertThat(registry.getClient(CLIENT_A, new ClientProperties()), sameInstance(clientA));
+	}
+
+	@Test
+	void shouldKeepSharedConnectionManagerOpenWhenClientIsClosed() throws IOException {
+		ApacheHC5ExchangeClient clientA = registry.getClient(CLIENT_A, new ClientProperties());
+		ApacheHC5ExchangeClient clientB = registry.getClient(CLIENT_B, new ClientProperties());
+		assertThat(get(clientA, "/"), equalTo(HttpStatus.SC_OK));
+
+		clientA.getHttpClient().close();
+
+		assertThat(get(clientB, "/"), equalTo(HttpStatus.SC_OK));
+	}
+
+	@Test
+	void shouldReconfigureSharedPoolLimits() {
+		ClientProperties clientProperties = new ClientProperties();
+		clientProperties.getConnection().setMaxTotal(7);
+		clientProperties.getConnection().setMaxPerRoute(3);
+
+		registry.reconfigure(clientProperties);
+
+		assertThat(registry.getConnectionManager().getMaxTotal(), equalTo(7));
+		assertThat(registry.getConnectionManager().getDefaultMaxPerRoute(), equalTo(3));
+	}
+
+	@Test
+	void shouldApplyReconfiguredRequestConfigToNextRequest() {
+		ApacheHC5ExchangeClient client = registry.getClient(CLIENT_A, new ClientProperties());
+		ClientProperties clientProperties = new ClientProperties();
+		clientProperties.getTimeout().setConnectionRequestTimeout(1234);
+		clientProperties.getTimeout().setSocketTimeout(4321);
+
+		registry.reconfigure(CLIENT_A, clientProperties);
+
+		@SuppressWarnings("unchecked")
+		ApiRequest<Object> apiRequest = mock(ApiRequest.class);
+		doReturn(uri).when(apiRequest).getUri();
+		doReturn(HttpMethod.GET).when(apiRequest).getMethod();
+		HttpUriRequestBase request = (HttpUriRequestBase) client.buildRequest(apiRequest);
+
+		assertThat(request.getConfig().getConnectionRequestTimeout().toMilliseconds(), equalTo(1234L));
+		assertThat(request.getConfig().getResponseTimeout().toMilliseconds(), equalTo(4321L));
+		assertThat(client.getClientProperties(), sameInstance(clientProperties));
+	}
+
+	@Test
+	void shouldPublishRequestMetricsUnderClientName() throws IOException {
+		ApacheHC5ExchangeClient clientA = registry.getClient(CLIENT_A, new ClientProperties());
+		ApacheHC5ExchangeClient clientB = registry.getClient(CLIENT_B, new ClientProperties());
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		registry.getMetricsBinder(CLIENT_A).bindTo(meterRegistry);
+		registry.getMetricsBinder(CLIENT_B).bindTo(meterRegistry);
+
+		get(clientA, "/");
+		get(clientA, "/");
+		get(clientB, "/");
+
+		assertThat(meterRegistry.get("httpcomponents.httpclient." + CLIENT_A + ".requests.total").functionCounter().count(), equalTo(2.0));
+		assertThat(meterRegistry.get("httpcomponents.httpclient." + CLIENT_B + ".requests.total").functionCounter().count(), equalTo(1.0));
+		assertThat(meterRegistry.get("httpcomponents.httpclient." + CLIENT_A + ".requests.active").gauge().value(), equalTo(0.0));
+	}
+
+	@Test
+	void shouldThrowExceptionWhenGettingMetricsOfUnknownClient() {
+		assertThrows(IllegalArgumentException.class, () -> registry.getMetricsBinder(CLIENT_A));
+	}
+
+	@Test
+	void shouldThrowExceptionWhenReconfiguringUnknownClient() {
+		ClientProperties clientProperties = new ClientProperties();
+
+		assertThrows(IllegalArgumentException.class, () -> registry.reconfigure(CLIENT_A, clientProperties));
+	}
+
+	@Test
+	void shouldNotDropInFlightRequestWhenReconfigured() throws Exception {
+		ApacheHC5ExchangeClient client = registry.getClient(CLIENT_A, new ClientProperties());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Integer> inFlight = executor.submit(() -> get(client, SLOW_PATH));
+			assertThat(slowRequestReceived.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), equalTo(true));
+
+			ClientProperties clientProperties = new ClientProperties();
+			clientProperties.getConnection().setMaxTotal(1);
+			clientProperties.getConnection().setMaxPerRoute(1);
+			clientProperties.getTimeout().setConnectionRequestTimeout(1234);
+			registry.reconfigure(clientProperties);
+			registry.reconfigure(CLIENT_A, clientProperties);
+			slowRequestRelease.countDown();
+
+			assertThat(inFlight.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), equalTo(HttpStatus.SC_OK));
+			assertThat(get(client, "/"), equalTo(HttpStatus.SC_OK));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
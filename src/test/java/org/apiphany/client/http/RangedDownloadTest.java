@@ -0,0 +1,320 @@
+package org.apiphany.client.http;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.impl.bootstrap.HttpServer;
+import org.apache.hc.core5.http.impl.bootstrap.ServerBootstrap;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apiphany.client.ClientProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for {@link RangedDownload}.
+ *
+ * @author Radu Sebastian LAZIN
+ */
+class RangedDownloadTest {
+
+	private static final int CONTENT_SIZE = 10_000;
+	private static final long CHUNK_SIZE = 1_000;
+	private static final int CHUNK_COUNT = (int) (CONTENT_SIZE / CHUNK_SIZE);
+	private static final String ETAG = "\"v1\"";
+	private static final String ETAG_CHANGED = "\"v2\"";
+	private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+	@TempDir
+	Path tempDir;
+
+	private HttpServer httpServer;
+
+	private CloseableHttpClient httpClient;
+
+	private URI uri;
+
+	private volatile byte[] content;
+	private volatile String eTag;
+	private volatile String lastModified;
+	private volatile boolean rangesSupported;
+	private volatile boolean rangesIgnored;
+	private volatile boolean rangesEncoded;
+
+	/**
+	 * Number of remaining truncated responses by range start.
+	 */
+	private final Map<Long, AtomicInteger> failures = new ConcurrentHashMap<>();
+
+	/**
+	 * The range starts of all the received range requests.
+	 */
+	private final List<Long> rangeRequests = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The {@code Accept-Encoding} values of all the received requests.
+	 */
+	private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+
+	/**
+	 * The number of range requests after which the resource changes, negative for never.
+	 */
+	private volatile int changeAfter;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		content = new byte[CONTENT_SIZE];
+		ThreadLocalRandom.current().nextBytes(content);
+		eTag = ETAG;
+		lastModified = LAST_MODIFIED;
+		rangesSupported = true;
+		rangesIgnored = false;
+		rangesEncoded = false;
+		changeAfter = -1;
+
+		httpServer = ServerBootstrap.bootstrap()
+				.setLocalAddress(InetAddress.getLoopbackAddress())
+				.setListenerPort(0)
+				.register("*", this::handle)
+				.create();
+		httpServer.start();
+		uri = URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + httpServer.getLocalPort() + "/file");
+		httpClient = PoolingHttpClients.createClient(new ClientProperties());
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		httpClient.close();
+		httpServer.close(CloseMode.IMMEDIATE);
+	}
+
+	private void handle(final ClassicHttpRequest request, final ClassicHttpResponse response, final HttpContext context) {
+		Header acceptEncoding = request.getFirstHeader(HttpHeaders.ACCEPT_ENCODING);
+		acceptEncodings.add(null != acceptEncoding ? acceptEncoding.getValue() : "");
+		if (null != eTag) {
+			response.setHeader(HttpHeaders.ETAG, eTag);
+		}
+		if (null != lastModified) {
+			response.setHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+		}
+		if (rangesSupported) {
+			response.setHeader(HttpHeaders.ACCEPT_RANGES, RangedDownload.BYTES);
+		}
+		Header range = request.getFirstHeader(HttpHeaders.RANGE);
+		if (null == range || !rangesSupported || rangesIgnored) {
+			response.setCode(HttpStatus.SC_OK);
+			response.setEntity(new ByteArrayEntity(content, ContentType.APPLICATION_OCTET_STREAM));
+			return;
+		}
+		String[] bounds = range.getValue().substring((RangedDownload.BYTES + "=").length()).split("-");
+		long start = Long.parseLong(bounds[0]);
+		long end = Long.parseLong(bounds[1]);
+		rangeRequests.add(start);
+		if (changeAfter >= 0 && rangeRequests.size() > changeAfter) {
+			eTag = ETAG_CHANGED;
+			response.setHeader(HttpHeaders.ETAG, eTag);
+		}
+		Header ifRange = request.getFirstHeader(HttpHeaders.IF_RANGE);
+		String validator = null != eTag ? eTag : lastModified;
+		if (null != ifRange && !ifRange.getValue().equals(validator)) {
+			response.setCode(HttpStatus.SC_OK);
+			response.setEntity(new ByteArrayEntity(content, ContentType.APPLICATION_OCTET_STREAM));
+			return;
+		}
+		byte[] chunk = Arrays.copyOfRange(content, (int) start, (int) end + 1);
+		AtomicInteger remainingFailures = failures.get(start);
+		if (null != remainingFailures && remainingFailures.getAndDecrement() > 0) {
+			chunk = Arrays.copyOf(chunk, chunk.length / 2);
+		}
+		response.setCode(HttpStatus.SC_PARTIAL_CONTENT);
+		if (rangesEncoded) {
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		response.setHeader(HttpHeaders.CONTENT_RANGE, RangedDownload.BYTES + " " + start + "-" + end + "/" + content.length);
+		response.setEntity(new ByteArrayEntity(chunk, ContentType.APPLICATION_OCTET_STREAM));
+	}
+
+	private RangedDownload rangedDownload(final Path target, final boolean memoryMapped) {
+		return rangedDownload(target, memoryMapped, CHUNK_SIZE);
+	}
+
+	private RangedDownload rangedDownload(final Path target, final boolean memoryMapped, final long chunkSize) {
+		ApacheHC5Properties.Download properties = new ApacheHC5Properties.Download();
+		properties.setChunkSize(chunkSize);
+		properties.setParallelism(4);
+		properties.setMaxRetries(2);
+		properties.setRetryDelay(1);
+		properties.setMemoryMapped(memoryMapped);
+		return RangedDownload.of(httpClient, uri, target, properties);
+	}
+
+	@Test
+	void shouldDownloadInRanges() throws IOException {
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false);
+
+		rangedDownload.download();
+
+		assertThat(Files.readAllBytes(target), equalTo(content));
+		assertThat(rangeRequests, hasSize(CHUNK_COUNT));
+		assertThat(rangedDownload.isComplete(), equalTo(true));
+		assertThat(rangedDownload.getETag(), equalTo(ETAG));
+		assertThat(acceptEncodings, everyItem(equalTo(RangedDownload.IDENTITY)));
+	}
+
+	@Test
+	void shouldDownloadInMemoryMappedRanges() throws IOException {
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, true);
+
+		rangedDownload.download();
+
+		assertThat(Files.readAllBytes(target), equalTo(content));
+		assertThat(rangeRequests, hasSize(CHUNK_COUNT));
+		assertThat(rangedDownload.isComplete(), equalTo(true));
+	}
+
+	@Test
+	void shouldDownloadWholeResourceWhenServerDoesNotSupportRanges() throws IOException {
+		rangesSupported = false;
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false);
+
+		rangedDownload.download();
+
+		assertThat(Files.readAllBytes(target), equalTo(content));
+		assertThat(rangeRequests, hasSize(0));
+		assertThat(rangedDownload.isComplete(), equalTo(true));
+	}
+
+	@Test
+	void shouldDownloadWholeResourceWhenServerReturnsNoValidator() throws IOException {
+		eTag = null;
+		lastModified = null;
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false);
+
+		rangedDownload.download();
+
+		assertThat(Files.readAllBytes(target), equalTo(content));
+		assertThat(rangeRequests, hasSize(0));
+	}
+
+	@Test
+	void shouldUseLastModifiedAsValidatorWhenServerReturnsNoETag() throws IOException {
+		eTag = null;
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false);
+
+		rangedDownload.download();
+
+		assertThat(Files.readAllBytes(target), equalTo(content));
+		assertThat(rangeRequests, hasSize(CHUNK_COUNT));
+		assertThat(rangedDownload.getLastModified(), equalTo(LAST_MODIFIED));
+	}
+
+	@Test
+	void shouldRetryChunkAfterIOFailure() throws IOException {
+		failures.put(3 * CHUNK_SIZE, new AtomicInteger(2));
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false);
+
+		rangedDownload.download();
+
+		assertThat(Files.readAllBytes(target), equalTo(content));
+		assertThat(rangeRequests, hasSize(CHUNK_COUNT + 2));
+		assertThat(rangedDownload.isComplete(), equalTo(true));
+	}
+
+	@Test
+	void shouldResumeOnlyMissingChunks() throws IOException {
+		long failingStart = 7 * CHUNK_SIZE;
+		failures.put(failingStart, new AtomicInteger(Integer.MAX_VALUE));
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false);
+
+		assertThrows(UncheckedIOException.class, rangedDownload::download);
+		assertThat(rangedDownload.isComplete(), equalTo(false));
+		assertThat(rangedDownload.getCompletedChunkCount(), equalTo(CHUNK_COUNT - 1));
+
+		failures.clear();
+		rangeRequests.clear();
+		rangedDownload.download();
+
+		assertThat(Files.readAllBytes(target), equalTo(content));
+		assertThat(rangeRequests, contains(failingStart));
+		assertThat(rangedDownload.isComplete(), equalTo(true));
+	}
+
+	@Test
+	void shouldAbortDownloadWhenETagChanges() {
+		changeAfter = 2;
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false);
+
+		assertThrows(UncheckedIOException.class, rangedDownload::download);
+		assertThat(rangedDownload.isComplete(), equalTo(false));
+	}
+
+	@Test
+	void shouldAbortDownloadWhenServerReturnsWholeResourceForRange() {
+		rangesIgnored = true;
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false);
+
+		assertThrows(UncheckedIOException.class, rangedDownload::download);
+		assertThat(rangedDownload.isComplete(), equalTo(false));
+		assertThat(rangedDownload.getCompletedChunkCount(), equalTo(0));
+	}
+
+	@Test
+	void shouldDownloadWholeResourceWhenItFitsInOneChunk() throws IOException {
+		rangesIgnored = true;
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false, CONTENT_SIZE);
+
+		rangedDownload.download();
+
+		assertThat(Files.readAllBytes(target), equalTo(content));
+		assertThat(rangedDownload.isComplete(), equalTo(true));
+	}
+
+	@Test
+	void shouldAbortDownloadWhenServerReturnsEncodedRange() {
+		rangesEncoded = true;
+		Path target = tempDir.resolve("file");
+		RangedDownload rangedDownload = rangedDownload(target, false);
+
+		assertThrows(UncheckedIOException.class, rangedDownload::download);
+		assertThat(rangedDownload.isComplete(), equalTo(false));
+		assertThat(rangedDownload.getCompletedChunkCount(), equalTo(0));
+	}
+}
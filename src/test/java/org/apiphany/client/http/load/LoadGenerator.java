@@ -0,0 +1,412 @@
+package org.apiphany.client.http.load;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apiphany.ApiClient;
+import org.apiphany.ApiClientFluentAdapter;
+import org.apiphany.ApiRequest;
+import org.apiphany.ApiResponse;
+import org.apiphany.client.http.ApacheHC5ExchangeClient;
+import org.apiphany.http.HttpMethod;
+import org.apiphany.lang.builder.PropertyNameBuilder;
+import org.apiphany.meters.ConnectionManagerMetricsBinder;
+
+import com.sun.management.ThreadMXBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Load generator which drives an {@link ApacheHC5ExchangeClient} against a URI in either the open model (constant arrival
+ * rate) or the closed model (fixed concurrency) and records the latencies in an HdrHistogram.
+ * <p>
+ * By default the requests go through {@link ApacheHC5ExchangeClient#exchange(ApiRequest)} so that the measurements
+ * include the plugin request building and response conversion, {@link LoadOptions.Api#HTTP_CLIENT} sends them directly
+ * through the underlying Apache HTTP client instead. The {@link ApiRequest} is built once per request thread through
+ * the Apiphany {@link ApiClient} fluent adapter, the way the API clients build it, so that no request building outside
+ * the exchange client is measured.
+ *
+ * @author Radu Sebastian LAZIN
+ */
+public class LoadGenerator {
+
+	/**
+	 * The client name used for the pool metrics.
+	 */
+	private static final String CLIENT_NAME = "load";
+
+	/**
+	 * The pool metrics sampling period in milliseconds.
+	 */
+	private static final long POOL_SAMPLING_PERIOD_MILLIS = 50;
+
+	/**
+	 * Safety factor applied to the expected in-flight requests when sizing the open model thread pool.
+	 */
+	private static final int IN_FLIGHT_HEADROOM = 4;
+
+	/**
+	 * Latency in milliseconds added to the injected server latency when sizing the open model thread pool.
+	 */
+	private static final int BASE_LATENCY_MILLIS = 10;
+
+	/**
+	 * Thread MX bean used to measure the bytes allocated by the request threads.
+	 */
+	private static final ThreadMXBean THREAD_MX_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	/**
+	 * The exchange client under test.
+	 */
+	private final ApacheHC5ExchangeClient client;
+
+	/**
+	 * The API client used to build the API requests.
+	 */
+	private final ApiClient apiClient;
+
+	/**
+	 * The target URI.
+	 */
+	private final URI uri;
+
+	/**
+	 * The load options.
+	 */
+	private final LoadOptions options;
+
+	/**
+	 * The API request used by each request thread.
+	 */
+	private final ThreadLocal<ApiRequest<Object>> apiRequests = ThreadLocal.withInitial(this::createApiRequest);
+
+	/**
+	 * Hidden constructor, use {@link #of(ApacheHC5ExchangeClient, URI, LoadOptions)}.
+	 *
+	 * @param client exchange client under test
+	 * @param uri target URI
+	 * @param options load options
+	 */
+	private LoadGenerator(final ApacheHC5ExchangeClient client, final URI uri, final LoadOptions options) {
+		this.client = client;
+		this.apiClient = ApiClient.of(uri.resolve("/").toString(), client);
+		this.uri = uri;
+		this.options = options;
+	}
+
+	/**
+	 * Creates a load generator.
+	 *
+	 * @param client exchange client under test
+	 * @param uri target URI
+	 * @param options load options
+	 * @return a new load generator
+	 */
+	public static LoadGenerator of(final ApacheHC5ExchangeClient client, final URI uri, final LoadOptions options) {
+		return new LoadGenerator(client, uri, options);
+	}
+
+	/**
+	 * Runs the warmup and then the measured load and returns the report of the measured part. Each part records into its
+	 * own {@link Phase} so that warmup requests still running cannot leak into the measured results.
+	 *
+	 * @return the load report
+	 * @throws InterruptedException if interrupted while waiting for the load to finish
+	 */
+	public LoadReport run() throws InterruptedException {
+		generate(new Phase(), TimeUnit.SECONDS.toNanos(options.getWarmupSeconds()));
+
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ConnectionManagerMetricsBinder.of(client.getConnectionManager(), CLIENT_NAME).bindTo(meterRegistry);
+		Gauge leased = poolGauge(meterRegistry, "connections", "leased");
+		Gauge pending = poolGauge(meterRegistry, "pending");
+		DoubleAccumulator peakLeased = new DoubleAccumulator(Math::max, 0);
+		DoubleAccumulator peakPending = new DoubleAccumulator(Math::max, 0);
+		ScheduledExecutorService poolSampler = Executors.newSingleThreadScheduledExecutor();
+		poolSampler.scheduleAtFixedRate(() -> {
+			peakLeased.accumulate(leased.value());
+			peakPending.accumulate(pending.value());
+		}, 0, POOL_SAMPLING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+
+		Phase measured = new Phase();
+		long start = System.nanoTime();
+		try {
+			generate(measured, TimeUnit.SECONDS.toNanos(options.getDurationSeconds()));
+		} finally {
+			poolSampler.shutdownNow();
+		}
+		long duration = System.nanoTime() - start;
+
+		return new LoadReport(options, duration, measured.successes.sum(), measured.errors.sum(), measured.dropped.sum(),
+				measured.latencies.copy(), poolGauge(meterRegistry, "max").value(), peakLeased.get(), peakPending.get(),
+				measured.allocatedBytes.sum());
+	}
+
+	/**
+	 * Generates load for the given duration with the configured model and waits for all requests to finish.
+	 *
+	 * @param phase the phase recording the results
+	 * @param durationNanos duration in nanoseconds
+	 * @throws InterruptedException if interrupted while waiting for the load to finish
+	 */
+	private void generate(final Phase phase, final long durationNanos) throws InterruptedException {
+		if (durationNanos <= 0) {
+			return;
+		}
+		ExecutorService executor = switch (options.getMode()) {
+			case OPEN -> generateOpen(phase, durationNanos);
+			case CLOSED -> generateClosed(phase, durationNanos);
+		};
+		executor.shutdown();
+		long timeout = durationNanos + TimeUnit.MILLISECONDS.toNanos(options.getConnectionRequestTimeoutMillis()
+				+ (long) options.getConnectTimeoutMillis() + options.getSocketTimeoutMillis());
+		if (!executor.awaitTermination(timeout, TimeUnit.NANOSECONDS)) {
+			for (Runnable pending : executor.shutdownNow()) {
+				if (pending instanceof Arrival arrival) {
+					arrival.drop();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sends requests at a constant arrival rate, the latency of each request is measured from its intended start time so
+	 * that queuing delays are not hidden when the client or server stalls. The requests run on a bounded, pre-started
+	 * thread pool sized from the rate and the expected latency, arrivals finding no idle thread wait in the executor queue
+	 * and the time spent there is part of their latency.
+	 *
+	 * @param phase the phase recording the results
+	 * @param durationNanos duration in nanoseconds
+	 * @return the executor running the requests
+	 */
+	private ExecutorService generateOpen(final Phase phase, final long durationNanos) {
+		int maxInFlight = maxInFlight();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxInFlight, maxInFlight, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>());
+		executor.prestartAllCoreThreads();
+		long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.getRate());
+		long start = System.nanoTime();
+		for (long intendedStart = start; intendedStart < start + durationNanos; intendedStart += intervalNanos) {
+			long wait = intendedStart - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			executor.execute(new Arrival(phase, intendedStart));
+		}
+		return executor;
+	}
+
+	/**
+	 * Returns the maximum number of requests in flight for the open model, either configured or computed as the rate
+	 * times the expected latency with some headroom.
+	 *
+	 * @return maximum number of requests in flight
+	 */
+	private int maxInFlight() {
+		if (options.getMaxInFlight() > 0) {
+			return options.getMaxInFlight();
+		}
+		double expectedLatencySeconds = (BASE_LATENCY_MILLIS + options.getServerLatencyMillis()
+				+ options.getServerLatencyJitterMillis()) / 1000.0;
+		return Math.max(options.getConcurrency(), (int) Math.ceil(options.getRate() * expectedLatencySeconds * IN_FLIGHT_HEADROOM));
+	}
+
+	/**
+	 * Sends requests from a fixed number of workers, each worker sending the next request as soon as the previous one
+	 * completes.
+	 *
+	 * @param phase the phase recording the results
+	 * @param durationNanos duration in nanoseconds
+	 * @return the executor running the requests
+	 */
+	private ExecutorService generateClosed(final Phase phase, final long durationNanos) {
+		ExecutorService executor = Executors.newFixedThreadPool(options.getConcurrency());
+		long end = System.nanoTime() + durationNanos;
+		for (int i = 0; i < options.getConcurrency(); ++i) {
+			executor.execute(() -> {
+				for (long requestStart = System.nanoTime(); requestStart < end; requestStart = System.nanoTime()) {
+					execute(phase, requestStart);
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Executes one request and records its latency and the bytes allocated by the current thread while executing it.
+	 *
+	 * @param phase the phase recording the results
+	 * @param startNanos request start time in nanoseconds
+	 */
+	private void execute(final Phase phase, final long startNanos) {
+		long allocatedBefore = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+		int code;
+		try {
+			code = switch (options.getApi()) {
+				case EXCHANGE -> exchange();
+				case HTTP_CLIENT -> executeHttpClient();
+			};
+		} catch (IOException | RuntimeException e) {
+			code = HttpStatus.SC_SERVER_ERROR;
+		}
+		phase.latencies.recordValue(System.nanoTime() - startNanos);
+		phase.allocatedBytes.add(THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore);
+		if (code >= HttpStatus.SC_SERVER_ERROR) {
+			phase.errors.increment();
+		} else {
+			phase.successes.increment();
+		}
+	}
+
+	/**
+	 * Executes one request through {@link ApacheHC5ExchangeClient#exchange(ApiRequest)}.
+	 *
+	 * @return the HTTP status code
+	 */
+	private int exchange() {
+		ApiResponse<Object> response = client.exchange(apiRequests.get());
+		return response.getStatus().value();
+	}
+
+	/**
+	 * Executes one request directly through the underlying Apache HTTP client.
+	 *
+	 * @return the HTTP status code
+	 * @throws IOException on I/O errors
+	 */
+	@SuppressWarnings("resource")
+	private int executeHttpClient() throws IOException {
+		HttpUriRequest request = ApacheHC5ExchangeClient.toHttpUriRequest(uri, HttpMethod.GET);
+		return client.getHttpClient().execute(request, response -> {
+			EntityUtils.consume(response.getEntity());
+			return response.getCode();
+		});
+	}
+
+	/**
+	 * Creates the {@code GET} API request for the current thread.
+	 *
+	 * @return API request
+	 */
+	private ApiRequest<Object> createApiRequest() {
+		return ApiClientFluentAdapter.of(apiClient)
+				.http()
+				.get()
+				.url(uri.toString());
+	}
+
+	/**
+	 * Returns the pool gauge published by {@link ConnectionManagerMetricsBinder} with the given name suffix.
+	 *
+	 * @param meterRegistry meter registry
+	 * @param paths metric name suffix
+	 * @return the gauge
+	 */
+	private static Gauge poolGauge(final SimpleMeterRegistry meterRegistry, final String... paths) {
+		String[] prefix = {
+				ConnectionManagerMetricsBinder.METRIC_HTTP_CLIENT_PREFIX, CLIENT_NAME, ConnectionManagerMetricsBinder.METRIC_POOL_TOTAL_PREFIX
+		};
+		String name = PropertyNameBuilder.builder()
+				.path(Stream.concat(Arrays.stream(prefix), Arrays.stream(paths)).toArray(String[]::new))
+				.build();
+		return meterRegistry.get(name).gauge();
+	}
+
+	/**
+	 * An open model arrival, remembering its intended start time so that the time spent waiting for a request thread is
+	 * part of its latency.
+	 *
+	 * @author Radu Sebastian LAZIN
+	 */
+	private class Arrival implements Runnable {
+
+		/**
+		 * The phase recording the results.
+		 */
+		private final Phase phase;
+
+		/**
+		 * The intended start time in nanoseconds.
+		 */
+		private final long intendedStart;
+
+		/**
+		 * Constructs the arrival.
+		 *
+		 * @param phase the phase recording the results
+		 * @param intendedStart the intended start time in nanoseconds
+		 */
+		Arrival(final Phase phase, final long intendedStart) {
+			this.phase = phase;
+			this.intendedStart = intendedStart;
+		}
+
+		/**
+		 * @see Runnable#run()
+		 */
+		@Override
+		public void run() {
+			execute(phase, intendedStart);
+		}
+
+		/**
+		 * Records an arrival which never got a request thread before the load finished, at the latency it has been pending
+		 * for so far.
+		 */
+		void drop() {
+			phase.latencies.recordValue(System.nanoTime() - intendedStart);
+			phase.dropped.increment();
+		}
+	}
+
+	/**
+	 * The results recorded during one load phase (warmup or measured).
+	 *
+	 * @author Radu Sebastian LAZIN
+	 */
+	private static class Phase {
+
+		/**
+		 * The latencies in nanoseconds.
+		 */
+		private final Histogram latencies = new ConcurrentHistogram(3);
+
+		/**
+		 * The number of successful requests.
+		 */
+		private final LongAdder successes = new LongAdder();
+
+		/**
+		 * The number of failed requests.
+		 */
+		private final LongAdder errors = new LongAdder();
+
+		/**
+		 * The number of open model arrivals still waiting for a request thread when the load finished.
+		 */
+		private final LongAdder dropped = new LongAdder();
+
+		/**
+		 * The bytes allocated by the request threads while executing requests.
+		 */
+		private final LongAdder allocatedBytes = new LongAdder();
+	}
+}
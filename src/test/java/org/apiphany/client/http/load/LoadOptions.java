@@ -0,0 +1,263 @@
+package org.apiphany.client.http.load;
+
+import org.apiphany.json.JsonBuilder;
+
+/**
+ * Load test options, read from system properties prefixed with {@value #PREFIX} (for example {@code -Dload.mode=open}).
+ *
+ * @author Radu Sebastian LAZIN
+ */
+public class LoadOptions {
+
+	/**
+	 * The system properties prefix.
+	 */
+	public static final String PREFIX = "load.";
+
+	/**
+	 * The maximum arrival rate, above it the interval between arrivals would be below one nanosecond.
+	 */
+	public static final double MAX_RATE = 1e9;
+
+	/**
+	 * The load model.
+	 */
+	public enum Mode {
+
+		/**
+		 * Constant arrival rate, latencies are measured from the intended start time so that server stalls are not hidden
+		 * (coordinated omission).
+		 */
+		OPEN,
+
+		/**
+		 * Fixed number of workers, each sending the next request as soon as the previous one completes.
+		 */
+		CLOSED
+	}
+
+	/**
+	 * The client API used to send the requests.
+	 */
+	public enum Api {
+
+		/**
+		 * Requests go through {@code ApacheHC5ExchangeClient.exchange}, including the plugin request building and response
+		 * conversion.
+		 */
+		EXCHANGE,
+
+		/**
+		 * Requests go directly through the underlying Apache HTTP client, measuring only the pool and transport.
+		 */
+		HTTP_CLIENT
+	}
+
+	private Mode mode = Mode.CLOSED;
+
+	private Api api = Api.EXCHANGE;
+
+	private double rate = 1000;
+
+	private int concurrency = 16;
+
+	private int maxInFlight = 0;
+
+	private int durationSeconds = 30;
+
+	private int warmupSeconds = 5;
+
+	private int serverLatencyMillis = 0;
+
+	private int serverLatencyJitterMillis = 0;
+
+	private double serverErrorRate = 0;
+
+	private int serverPayloadSize = 1024;
+
+	private int maxTotal = 50;
+
+	private int maxPerRoute = 50;
+
+	private int connectTimeoutMillis = 5000;
+
+	private int socketTimeoutMillis = 10000;
+
+	private int connectionRequestTimeoutMillis = 5000;
+
+	private boolean printDistribution = false;
+
+	/**
+	 * Returns the options configured from the system properties, using the defaults for the missing ones.
+	 *
+	 * @return load test options
+	 * @throws IllegalArgumentException if the rate is not greater than 0 and at most {@value #MAX_RATE}
+	 */
+	public static LoadOptions fromSystemProperties() {
+		LoadOptions options = new LoadOptions();
+		options.setMode(Mode.valueOf(System.getProperty(PREFIX + "mode", options.getMode().name()).toUpperCase()));
+		options.setApi(Api.valueOf(System.getProperty(PREFIX + "api", options.getApi().name()).toUpperCase().replace('-', '_')));
+		options.setRate(Double.parseDouble(System.getProperty(PREFIX + "rate", String.valueOf(options.getRate()))));
+		if (!(options.getRate() > 0 && options.getRate() <= MAX_RATE)) {
+			throw new IllegalArgumentException("Invalid " + PREFIX + "rate: " + options.getRate() + ", it must be greater than 0 and at most "
+					+ MAX_RATE + " requests per second");
+		}
+		options.setConcurrency(Integer.getInteger(PREFIX + "concurrency", options.getConcurrency()));
+		options.setMaxInFlight(Integer.getInteger(PREFIX + "max-in-flight", options.getMaxInFlight()));
+		options.setDurationSeconds(Integer.getInteger(PREFIX + "duration", options.getDurationSeconds()));
+		options.setWarmupSeconds(Integer.getInteger(PREFIX + "warmup", options.getWarmupSeconds()));
+		options.setServerLatencyMillis(Integer.getInteger(PREFIX + "server.latency", options.getServerLatencyMillis()));
+		options.setServerLatencyJitterMillis(Integer.getInteger(PREFIX + "server.latency-jitter", options.getServerLatencyJitterMillis()));
+		options.setServerErrorRate(Double.parseDouble(System.getProperty(PREFIX + "server.error-rate", String.valueOf(options.getServerErrorRate()))));
+		options.setServerPayloadSize(Integer.getInteger(PREFIX + "server.payload-size", options.getServerPayloadSize()));
+		options.setMaxTotal(Integer.getInteger(PREFIX + "pool.max-total", options.getMaxTotal()));
+		options.setMaxPerRoute(Integer.getInteger(PREFIX + "pool.max-per-route", options.getMaxPerRoute()));
+		options.setConnectTimeoutMillis(Integer.getInteger(PREFIX + "timeout.connect", options.getConnectTimeoutMillis()));
+		options.setSocketTimeoutMillis(Integer.getInteger(PREFIX + "timeout.socket", options.getSocketTimeoutMillis()));
+		options.setConnectionRequestTimeoutMillis(Integer.getInteger(PREFIX + "timeout.connection-request", options.getConnectionRequestTimeoutMillis()));
+		options.setPrintDistribution(Boolean.getBoolean(PREFIX + "print-distribution"));
+		return options;
+	}
+
+	@Override
+	public String toString() {
+		return JsonBuilder.toJson(this);
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public void setMode(final Mode mode) {
+		this.mode = mode;
+	}
+
+	public Api getApi() {
+		return api;
+	}
+
+	public void setApi(final Api api) {
+		this.api = api;
+	}
+
+	public double getRate() {
+		return rate;
+	}
+
+	public void setRate(final double rate) {
+		this.rate = rate;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public void setConcurrency(final int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public void setMaxInFlight(final int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+
+	public int getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public void setDurationSeconds(final int durationSeconds) {
+		this.durationSeconds = durationSeconds;
+	}
+
+	public int getWarmupSeconds() {
+		return warmupSeconds;
+	}
+
+	public void setWarmupSeconds(final int warmupSeconds) {
+		this.warmupSeconds = warmupSeconds;
+	}
+
+	public int getServerLatencyMillis() {
+		return serverLatencyMillis;
+	}
+
+	public void setServerLatencyMillis(final int serverLatencyMillis) {
+		this.serverLatencyMillis = serverLatencyMillis;
+	}
+
+	public int getServerLatencyJitterMillis() {
+		return serverLatencyJitterMillis;
+	}
+
+	public void setServerLatencyJitterMillis(final int serverLatencyJitterMillis) {
+		this.serverLatencyJitterMillis = serverLatencyJitterMillis;
+	}
+
+	public double getServerErrorRate() {
+		return serverErrorRate;
+	}
+
+	public void setServerErrorRate(final double serverErrorRate) {
+		this.serverErrorRate = serverErrorRate;
+	}
+
+	public int getServerPayloadSize() {
+		return serverPayloadSize;
+	}
+
+	public void setServerPayloadSize(final int serverPayloadSize) {
+		this.serverPayloadSize = serverPayloadSize;
+	}
+
+	public int getMaxTotal() {
+		return maxTotal;
+	}
+
+	public void setMaxTotal(final int maxTotal) {
+		this.maxTotal = maxTotal;
+	}
+
+	public int getMaxPerRoute() {
+		return maxPerRoute;
+	}
+
+	public void setMaxPerRoute(final int maxPerRoute) {
+		this.maxPerRoute = maxPerRoute;
+	}
+
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public void setConnectTimeoutMillis(final int connectTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	public int getSocketTimeoutMillis() {
+		return socketTimeoutMillis;
+	}
+
+	public void setSocketTimeoutMillis(final int socketTimeoutMillis) {
+		this.socketTimeoutMillis = socketTimeoutMillis;
+	}
+
+	public int getConnectionRequestTimeoutMillis() {
+		return connectionRequestTimeoutMillis;
+	}
+
+	public void setConnectionRequestTimeoutMillis(final int connectionRequestTimeoutMillis) {
+		this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+	}
+
+	public boolean isPrintDistribution() {
+		return printDistribution;
+	}
+
+	public void setPrintDistribution(final boolean printDistribution) {
+		this.printDistribution = printDistribution;
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.apiphany.client.http.load;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Load test report.
+ *
+ * @param options the load options used
+ * @param durationNanos measured duration in nanoseconds
+ * @param successes number of successful requests
+ * @param errors number of failed requests (I/O errors and {@code 5xx} responses)
+ * @param dropped number of open model arrivals still waiting for a request thread when the load finished, recorded in
+ *     the latencies at the time they had been pending
+ * @param latencies latency histogram in nanoseconds
+ * @param poolMax configured maximum number of pooled connections
+ * @param peakLeased peak number of leased connections
+ * @param peakPending peak number of connection requests waiting for a connection
+ * @param allocatedBytes bytes allocated by the request threads while executing the measured requests
+ *
+ * @author Radu Sebastian LAZIN
+ */
+public record LoadReport(
+		LoadOptions options,
+		long durationNanos,
+		long successes,
+		long errors,
+		long dropped,
+		Histogram latencies,
+		double poolMax,
+		double peakLeased,
+		double peakPending,
+		long allocatedBytes) {
+
+	/**
+	 * Nanoseconds in a millisecond, used to scale the histogram values.
+	 */
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Returns the throughput in requests per second.
+	 *
+	 * @return the throughput
+	 */
+	public double throughput() {
+		return (successes + errors) / seconds();
+	}
+
+	/**
+	 * Returns the allocation rate in megabytes per second.
+	 *
+	 * @return the allocation rate
+	 */
+	public double allocationRate() {
+		return allocatedBytes / (1024.0 * 1024.0) / seconds();
+	}
+
+	/**
+	 * Returns the latency at the given percentile in milliseconds.
+	 *
+	 * @param percentile the percentile
+	 * @return the latency in milliseconds
+	 */
+	public double latencyMillis(final double percentile) {
+		return latencies.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * Prints the report.
+	 *
+	 * @param out output stream
+	 */
+	public void print(final PrintStream out) {
+		out.printf("mode: %s, duration: %.1f s%n", options.getMode(), seconds());
+		out.printf("requests: %d, errors: %d, dropped: %d%n", successes + errors, errors, dropped);
+		out.printf("throughput: %.1f req/s%n", throughput());
+		out.printf("latency (ms): p50=%.3f p99=%.3f p99.9=%.3f max=%.3f%n",
+				latencyMillis(50), latencyMillis(99), latencyMillis(99.9), latencies.getMaxValue() / NANOS_PER_MILLI);
+		out.printf("pool: max=%.0f peak leased=%.0f peak pending=%.0f%n", poolMax, peakLeased, peakPending);
+		out.printf("allocation rate: %.1f MB/s%n", allocationRate());
+		if (options.isPrintDistribution()) {
+			latencies.outputPercentileDistribution(out, NANOS_PER_MILLI);
+		}
+	}
+
+	/**
+	 * Returns the measured duration in seconds.
+	 *
+	 * @return the duration in seconds
+	 */
+	private double seconds() {
+		return durationNanos / (double) TimeUnit.SECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,52 @@
+package org.apiphany.client.http.load;
+
+import org.apiphany.client.ClientProperties;
+import org.apiphany.client.http.ApacheHC5ExchangeClient;
+
+/**
+ * Runs the load test against a local {@link MockServer} and prints the {@link LoadReport}, see {@link LoadOptions} for
+ * the available options. It is not a unit test, run it with:
+ *
+ * <pre>
+ * mvn -Pload-test test-compile exec:java -Dload.mode=open -Dload.rate=2000 -Dload.server.latency=5
+ * </pre>
+ *
+ * @author Radu Sebastian LAZIN
+ */
+public class LoadRunner {
+
+	/**
+	 * Hide constructor.
+	 */
+	private LoadRunner() {
+		// empty
+	}
+
+	/**
+	 * Main method.
+	 *
+	 * @param args ignored, the options are read from the system properties
+	 * @throws Exception on any error
+	 */
+	public static void main(final String[] args) throws Exception {
+		LoadOptions options = LoadOptions.fromSystemProperties();
+		System.out.println("options: " + options);
+
+		ClientProperties clientProperties = new ClientProperties();
+		clientProperties.getConnection().setMaxTotal(options.getMaxTotal());
+		clientProperties.getConnection().setMaxPerRoute(options.getMaxPerRoute());
+		clientProperties.getTimeout().setConnectTimeout(options.getConnectTimeoutMillis());
+		clientProperties.getTimeout().setSocketTimeout(options.getSocketTimeoutMillis());
+		clientProperties.getTimeout().setConnectionRequestTimeout(options.getConnectionRequestTimeoutMillis());
+
+		try (MockServer mockServer = MockServer.start(options)) {
+			ApacheHC5ExchangeClient client = new ApacheHC5ExchangeClient(clientProperties);
+			try {
+				LoadReport report = LoadGenerator.of(client, mockServer.getUri(), options).run();
+				report.print(System.out);
+			} finally {
+				client.getHttpClient().close();
+			}
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package org.apiphany.client.http.load;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.impl.bootstrap.HttpServer;
+import org.apache.hc.core5.http.impl.bootstrap.ServerBootstrap;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Local HttpCore 5 server used by the load test which answers every request with a fixed size payload after an
+ * injected latency, or with an injected {@code 500} error.
+ *
+ * @author Radu Sebastian LAZIN
+ */
+public class MockServer implements AutoCloseable {
+
+	/**
+	 * The underlying HttpCore 5 server.
+	 */
+	private final HttpServer httpServer;
+
+	/**
+	 * The load options containing the server behavior.
+	 */
+	private final LoadOptions options;
+
+	/**
+	 * The response payload.
+	 */
+	private final byte[] payload;
+
+	/**
+	 * Hidden constructor, use {@link #start(LoadOptions)}.
+	 *
+	 * @param options load options
+	 */
+	private MockServer(final LoadOptions options) {
+		this.options = options;
+		this.payload = new byte[options.getServerPayloadSize()];
+		ThreadLocalRandom.current().nextBytes(payload);
+		this.httpServer = ServerBootstrap.bootstrap()
+				.setLocalAddress(InetAddress.getLoopbackAddress())
+				.setListenerPort(0)
+				.setSocketConfig(SocketConfig.custom()
+						.setSoTimeout(Timeout.ofMilliseconds(options.getSocketTimeoutMillis()))
+						.setTcpNoDelay(true)
+						.build())
+				.register("*", this::handle)
+				.create();
+	}
+
+	/**
+	 * Creates and starts a mock server listening on an ephemeral loopback port.
+	 *
+	 * @param options load options
+	 * @return the started server
+	 * @throws IOException if the server cannot be started
+	 */
+	public static MockServer start(final LoadOptions options) throws IOException {
+		MockServer mockServer = new MockServer(options);
+		mockServer.httpServer.start();
+		return mockServer;
+	}
+
+	/**
+	 * Handles a request.
+	 *
+	 * @param request HTTP request
+	 * @param response HTTP response
+	 * @param context HTTP context
+	 */
+	private void handle(final ClassicHttpRequest request, final ClassicHttpResponse response, final HttpContext context) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int jitter = options.getServerLatencyJitterMillis();
+		long latency = options.getServerLatencyMillis() + (jitter > 0 ? random.nextInt(jitter + 1) : 0);
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (random.nextDouble() < options.getServerErrorRate()) {
+			response.setCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+			response.setEntity(new StringEntity("Injected error", ContentType.TEXT_PLAIN));
+			return;
+		}
+		response.setCode(HttpStatus.SC_OK);
+		response.setEntity(new ByteArrayEntity(payload, ContentType.APPLICATION_OCTET_STREAM));
+	}
+
+	/**
+	 * Returns the server URI.
+	 *
+	 * @return the server URI
+	 */
+	public URI getUri() {
+		return URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + httpServer.getLocalPort() + "/");
+	}
+
+	/**
+	 * @see AutoCloseable#close()
+	 */
+	@Override
+	public void close() {
+		httpServer.close(CloseMode.IMMEDIATE);
+	}
+}